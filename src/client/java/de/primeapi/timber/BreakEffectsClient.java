@@ -0,0 +1,59 @@
+package de.primeapi.timber;
+
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.particles.BlockParticleOption;
+import net.minecraft.core.particles.ParticleTypes;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.world.level.block.SoundType;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.Vec3;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/** Spawns coalesced timber break effects with level of detail based on camera distance. */
+public class BreakEffectsClient {
+    private static final double FULL_DETAIL_DIST = 24; // vanilla destroy particles
+    private static final double REDUCED_DETAIL_DIST = 48; // a few particles for every n-th block
+    private static final int REDUCED_STRIDE = 4;
+    private static final int REDUCED_PARTICLES = 3;
+    private static final int MAX_SOUNDS_PER_BATCH = 3;
+
+    public static void init() {
+        ClientPlayNetworking.registerGlobalReceiver(BreakEffects.BreakEffectsPayload.TYPE, (payload, context) -> {
+            context.client().execute(() -> spawn(context.client(), payload));
+        });
+    }
+
+    private static void spawn(Minecraft client, BreakEffects.BreakEffectsPayload payload) {
+        ClientLevel level = client.level;
+        if (level == null) return;
+        Vec3 cam = client.gameRenderer.getMainCamera().getPosition();
+        double fullSq = FULL_DETAIL_DIST*FULL_DETAIL_DIST;
+        double reducedSq = REDUCED_DETAIL_DIST*REDUCED_DETAIL_DIST;
+        Set<Integer> playedSounds = new HashSet<>();
+        for (int i=0;i<payload.size();i++) {
+            BlockPos pos = payload.pos(i);
+            BlockState state = payload.state(i);
+            if (state.isAir()) continue;
+            // One break sound per distinct state instead of one per block
+            if (playedSounds.size() < MAX_SOUNDS_PER_BATCH && playedSounds.add(payload.stateIds()[i])) {
+                SoundType sound = state.getSoundType();
+                level.playLocalSound(pos, sound.getBreakSound(), SoundSource.BLOCKS, (sound.getVolume()+1f)/2f, sound.getPitch()*0.8f, false);
+            }
+            double distSq = cam.distanceToSqr(pos.getX()+0.5, pos.getY()+0.5, pos.getZ()+0.5);
+            if (distSq <= fullSq) {
+                level.addDestroyBlockEffect(pos, state);
+            } else if (distSq <= reducedSq && i % REDUCED_STRIDE == 0) {
+                BlockParticleOption particle = new BlockParticleOption(ParticleTypes.BLOCK, state);
+                for (int p=0;p<REDUCED_PARTICLES;p++) {
+                    level.addParticle(particle, pos.getX()+level.random.nextDouble(), pos.getY()+level.random.nextDouble(), pos.getZ()+level.random.nextDouble(), 0,0,0);
+                }
+            }
+            // beyond reduced range: sound only
+        }
+    }
+}
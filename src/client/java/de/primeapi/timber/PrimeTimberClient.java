@@ -30,5 +30,6 @@ public class PrimeTimberClient implements ClientModInitializer {
 			}
 		});
 		TreePreview.init();
+		BreakEffectsClient.init();
 	}
 }
\ No newline at end of file
@@ -17,7 +17,11 @@ import java.util.*;
 
 /** Client-side preview overlay for timber. */
 public class TreePreview {
-    private static List<BlockPos> previewBlocks = Collections.emptyList(); // now actual destruction blocks
+    private static TreeSelection previewSelection = TreeSelection.EMPTY; // now actual destruction blocks
+    private static TreeAnalyzer.TrackedPartition tracked; // kept fresh through block updates instead of re-analyzing each tick
+    private static BlockPos trackedOrigin;
+    private static Level trackedLevel;
+    private static final Set<BlockPos> pendingChanges = new HashSet<>();
     private static boolean canChop = false;
     private static int tickCounter = 0; // retained but no longer used for action bar
 
@@ -25,45 +29,54 @@ public class TreePreview {
         ClientTickEvents.END_CLIENT_TICK.register(TreePreview::updatePreview);
     }
 
-    public static List<BlockPos> getPreviewBlocks() { return previewBlocks; }
+    public static TreeSelection getPreviewSelection() { return previewSelection; }
     public static boolean canChopAll() { return canChop; }
 
+    /** Called for every client block update; collects the ones near the tracked tree for the next repair. */
+    public static void onBlockChanged(BlockPos pos) {
+        if (tracked != null && tracked.affects(pos)) pendingChanges.add(pos.immutable());
+    }
+
+    private static void clear() {
+        previewSelection = TreeSelection.EMPTY;
+        tracked = null;
+        pendingChanges.clear();
+    }
+
     private static void updatePreview(Minecraft client) {
         LocalPlayer player = client.player;
-        if (player == null) { previewBlocks = Collections.emptyList(); return; }
+        if (player == null) { clear(); return; }
         boolean keyActive = PrimeTimberClient.isTimberKeyDown();
-        if (!keyActive) { previewBlocks = Collections.emptyList(); return; }
+        if (!keyActive) { clear(); return; }
         ItemStack stack = player.getMainHandItem();
-        if (!(stack.getItem() instanceof AxeItem)) { previewBlocks = Collections.emptyList(); return; }
+        if (!(stack.getItem() instanceof AxeItem)) { clear(); return; }
         HitResult hit = client.hitResult;
-        if (!(hit instanceof BlockHitResult bhr)) { previewBlocks = Collections.emptyList(); return; }
+        if (!(hit instanceof BlockHitResult bhr)) { clear(); return; }
         BlockPos origin = bhr.getBlockPos();
         Level level = player.level();
         BlockState originState = level.getBlockState(origin);
-        if (!originState.is(BlockTags.LOGS) && !originState.is(BlockTags.CRIMSON_STEMS) && !originState.is(BlockTags.WARPED_STEMS)) { previewBlocks = Collections.emptyList(); return; }
+        if (!originState.is(BlockTags.LOGS) && !originState.is(BlockTags.CRIMSON_STEMS) && !originState.is(BlockTags.WARPED_STEMS)) { clear(); return; }
 
         // Mirror server selection logic using TreeAnalyzer
         // Hard cap matches server
-        List<BlockPos> analyzed = TreeAnalyzer.analyze(level, origin, originState, 2048);
-        previewBlocks = analyzed;
-        int remaining = stack.getMaxDamage() - stack.getDamageValue();
-        int logCost = 0;
-        for (BlockPos p : previewBlocks) {
-            BlockState bs = level.getBlockState(p);
-            if (bs.is(BlockTags.LOGS) || bs.is(BlockTags.CRIMSON_STEMS) || bs.is(BlockTags.WARPED_STEMS)) logCost++;
+        if (tracked == null || tracked.selection().isEmpty() || trackedLevel != level || !origin.equals(trackedOrigin)) { // nothing to repair, analyze fully
+            tracked = TreeAnalyzer.track(level, origin, originState, 2048);
+            trackedLevel = level;
+            trackedOrigin = origin.immutable();
+            pendingChanges.clear();
+        } else if (!pendingChanges.isEmpty()) {
+            TreeAnalyzer.repair(level, tracked, pendingChanges);
+            pendingChanges.clear();
         }
-        canChop = !previewBlocks.isEmpty() && remaining >= logCost;
+        previewSelection = tracked.selection();
+        int remaining = stack.getMaxDamage() - stack.getDamageValue();
+        canChop = !previewSelection.isEmpty() && remaining >= previewSelection.logCount();
 
         // Remove previous interior particle logic; only edge outline particles
-        if (!previewBlocks.isEmpty()) {
-            // Compute bounding box only for blocks slated for destruction
-            int minX=Integer.MAX_VALUE,minY=Integer.MAX_VALUE,minZ=Integer.MAX_VALUE,maxX=Integer.MIN_VALUE,maxY=Integer.MIN_VALUE,maxZ=Integer.MIN_VALUE;
-            for (BlockPos p : previewBlocks) {
-                int x=p.getX(), y=p.getY(), z=p.getZ();
-                if (x<minX) minX=x; if (y<minY) minY=y; if (z<minZ) minZ=z;
-                if (x>maxX) maxX=x; if (y>maxY) maxY=y; if (z>maxZ) maxZ=z;
-            }
-            maxX++; maxY++; maxZ++; // include top/right faces
+        if (!previewSelection.isEmpty()) {
+            // Bounding box of blocks slated for destruction, precomputed by the analyzer
+            int minX=previewSelection.minX(), minY=previewSelection.minY(), minZ=previewSelection.minZ();
+            int maxX=previewSelection.maxX()+1, maxY=previewSelection.maxY()+1, maxZ=previewSelection.maxZ()+1; // include top/right faces
             int color = canChop ? 0x00FF00 : 0xFF0000;
             float scale = 1.0f;
             net.minecraft.core.particles.DustParticleOptions dust = new net.minecraft.core.particles.DustParticleOptions(color, scale);
@@ -0,0 +1,19 @@
+package de.primeapi.timber.mixin.client;
+
+import de.primeapi.timber.TreePreview;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientLevel.class)
+public class ClientLevelMixin {
+	@Inject(method = "sendBlockUpdated", at = @At("HEAD"))
+	private void primetimber$trackChange(BlockPos pos, BlockState oldState, BlockState newState, int flags, CallbackInfo ci) {
+		// Feed block changes to the preview so it can repair its selection incrementally
+		TreePreview.onBlockChanged(pos);
+	}
+}
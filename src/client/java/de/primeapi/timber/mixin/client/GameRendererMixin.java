@@ -1,15 +1,14 @@
 package de.primeapi.timber.mixin.client;
 
 import de.primeapi.timber.TreePreview;
+import de.primeapi.timber.TreeSelection;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.GameRenderer;
-import net.minecraft.core.BlockPos;
 import org.lwjgl.opengl.GL11;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
-import java.util.List;
 
 @Mixin(GameRenderer.class)
 public class GameRendererMixin {
@@ -17,18 +16,13 @@ public class GameRendererMixin {
 	private void primetimber$outline(float tickDelta, long nanoTime, boolean renderLevel, CallbackInfo ci) {
 		Minecraft mc = Minecraft.getInstance();
 		if (mc.level == null || mc.player == null) return;
-		List<BlockPos> blocks = TreePreview.getPreviewBlocks();
-		if (blocks.isEmpty()) return;
-		int minX=Integer.MAX_VALUE,minY=Integer.MAX_VALUE,minZ=Integer.MAX_VALUE,maxX=Integer.MIN_VALUE,maxY=Integer.MIN_VALUE,maxZ=Integer.MIN_VALUE;
-		for (BlockPos p : blocks) {
-			int x=p.getX(), y=p.getY(), z=p.getZ();
-			if (x<minX) minX=x; if (y<minY) minY=y; if (z<minZ) minZ=z;
-			if (x>maxX) maxX=x; if (y>maxY) maxY=y; if (z>maxZ) maxZ=z;
-		}
-		maxX += 1; maxY += 1; maxZ += 1; // encompass blocks fully
+		TreeSelection selection = TreePreview.getPreviewSelection();
+		if (selection.isEmpty()) return;
+		int minX=selection.minX(), minY=selection.minY(), minZ=selection.minZ();
+		int maxX=selection.maxX()+1, maxY=selection.maxY()+1, maxZ=selection.maxZ()+1; // encompass blocks fully
 		// Debug: log bbox size occasionally
 		if (mc.level.getGameTime() % 40 == 0) {
-			de.primeapi.timber.PrimeTimber.LOGGER.debug("Timber preview bbox: ({} {} {}) to ({} {} {}) count {}", minX,minY,minZ,maxX,maxY,maxZ, blocks.size());
+			de.primeapi.timber.PrimeTimber.LOGGER.debug("Timber preview bbox: ({} {} {}) to ({} {} {}) count {}", minX,minY,minZ,maxX,maxY,maxZ, selection.size());
 		}
 		double camX = mc.gameRenderer.getMainCamera().getPosition().x;
 		double camY = mc.gameRenderer.getMainCamera().getPosition().y;
@@ -0,0 +1,131 @@
+package de.primeapi.timber;
+
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.VarInt;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.network.protocol.game.ClientboundLevelEventPacket;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.LevelEvent;
+import net.minecraft.world.level.block.state.BlockState;
+import io.netty.buffer.ByteBuf;
+
+import java.util.*;
+
+/**
+ * Coalesces the break particles/sounds of one scheduler batch into a single packet.
+ * Clients with the mod spawn the effects locally with distance based level of detail,
+ * vanilla clients fall back to the per-block level event.
+ */
+public class BreakEffects {
+
+    public static final ResourceLocation BREAK_EFFECTS_ID = ResourceLocation.tryParse(PrimeTimber.MOD_ID + ":break_effects");
+
+    /**
+     * Block states plus positions relative to {@code base}, the minimum corner of the batch.
+     * Offsets are stored flat as x,y,z triples so they encode as small non-negative var ints.
+     */
+    public record BreakEffectsPayload(BlockPos base, int[] stateIds, int[] offsets) implements CustomPacketPayload {
+        public static final Type<BreakEffectsPayload> TYPE = new Type<>(BREAK_EFFECTS_ID);
+        public static final StreamCodec<ByteBuf, BreakEffectsPayload> CODEC = StreamCodec.of(BreakEffectsPayload::write, BreakEffectsPayload::read);
+
+        public int size() { return stateIds.length; }
+
+        public BlockPos pos(int i) {
+            return base.offset(offsets[i*3], offsets[i*3+1], offsets[i*3+2]);
+        }
+
+        public BlockState state(int i) { return Block.stateById(stateIds[i]); }
+
+        private static void write(ByteBuf buf, BreakEffectsPayload payload) {
+            buf.writeLong(payload.base().asLong());
+            VarInt.write(buf, payload.stateIds().length);
+            for (int i=0;i<payload.stateIds().length;i++) {
+                VarInt.write(buf, payload.stateIds()[i]);
+                VarInt.write(buf, payload.offsets()[i*3]);
+                VarInt.write(buf, payload.offsets()[i*3+1]);
+                VarInt.write(buf, payload.offsets()[i*3+2]);
+            }
+        }
+
+        private static BreakEffectsPayload read(ByteBuf buf) {
+            BlockPos base = BlockPos.of(buf.readLong());
+            int count = VarInt.read(buf);
+            int[] stateIds = new int[count];
+            int[] offsets = new int[count*3];
+            for (int i=0;i<count;i++) {
+                stateIds[i] = VarInt.read(buf);
+                offsets[i*3] = VarInt.read(buf);
+                offsets[i*3+1] = VarInt.read(buf);
+                offsets[i*3+2] = VarInt.read(buf);
+            }
+            return new BreakEffectsPayload(base, stateIds, offsets);
+        }
+
+        @Override
+        public Type<? extends CustomPacketPayload> type() {
+            return TYPE;
+        }
+    }
+
+    /** Collects the removals of one tick for one task. */
+    public static class Batch {
+        private final List<BlockPos> positions = new ArrayList<>();
+        private final List<BlockState> states = new ArrayList<>();
+
+        public void add(BlockPos pos, BlockState state) {
+            positions.add(pos.immutable());
+            states.add(state);
+        }
+
+        public boolean isEmpty() { return positions.isEmpty(); }
+
+        /** Sends the batch to every player tracking one of the touched chunks and clears it. */
+        public void send(ServerLevel level) {
+            if (positions.isEmpty()) return;
+            int minX=Integer.MAX_VALUE,minY=Integer.MAX_VALUE,minZ=Integer.MAX_VALUE;
+            Set<Long> chunks = new HashSet<>();
+            for (BlockPos p : positions) {
+                if (p.getX()<minX) minX=p.getX(); if (p.getY()<minY) minY=p.getY(); if (p.getZ()<minZ) minZ=p.getZ();
+                chunks.add(ChunkPos.asLong(p));
+            }
+            BlockPos base = new BlockPos(minX, minY, minZ);
+            int[] stateIds = new int[positions.size()];
+            int[] offsets = new int[positions.size()*3];
+            for (int i=0;i<positions.size();i++) {
+                BlockPos p = positions.get(i);
+                stateIds[i] = Block.getId(states.get(i));
+                offsets[i*3] = p.getX()-minX;
+                offsets[i*3+1] = p.getY()-minY;
+                offsets[i*3+2] = p.getZ()-minZ;
+            }
+            BreakEffectsPayload payload = new BreakEffectsPayload(base, stateIds, offsets);
+
+            Set<ServerPlayer> receivers = new LinkedHashSet<>();
+            for (long chunk : chunks) receivers.addAll(PlayerLookup.tracking(level, new ChunkPos(chunk)));
+            for (ServerPlayer player : receivers) {
+                if (ServerPlayNetworking.canSend(player, BreakEffectsPayload.TYPE)) {
+                    ServerPlayNetworking.send(player, payload);
+                } else {
+                    // Vanilla client: per-block level event as destroyBlock would have sent
+                    for (int i=0;i<positions.size();i++) {
+                        player.connection.send(new ClientboundLevelEventPacket(LevelEvent.PARTICLES_DESTROY_BLOCK, positions.get(i), stateIds[i], false));
+                    }
+                }
+            }
+            positions.clear();
+            states.clear();
+        }
+    }
+
+    public static void registerCodec() {
+        PayloadTypeRegistry.playS2C().register(BreakEffectsPayload.TYPE, BreakEffectsPayload.CODEC);
+    }
+}
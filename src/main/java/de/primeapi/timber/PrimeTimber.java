@@ -23,6 +23,9 @@ public class PrimeTimber implements ModInitializer {
 		LOGGER.info("Initializing PrimeTimber timber logic");
 		TimberKeyHandler.registerCodec();
 		TimberKeyHandler.registerServerReceiver();
+		BreakEffects.registerCodec();
+		RemovalScheduler.init();
+		TimberApi.init();
 		TreeChopper.init();
 	}
 }
\ No newline at end of file
@@ -1,74 +1,245 @@
 package de.primeapi.timber;
 
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.TicketType;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.sounds.SoundEvents;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
-import java.util.*; // added for Map, HashMap, List, UUID, Iterator
+import net.minecraft.world.level.gameevent.GameEvent;
+import java.util.*; // added for Map, HashMap, List, Iterator
 
 /**
  * Schedules animated removal of tree blocks over subsequent server ticks.
+ * Blocks are removed top-down, one chunk section at a time, and every active task keeps the chunks
+ * containing its selected blocks loaded with a ticket until it finishes or is aborted.
  */
 public class RemovalScheduler {
-    private static final Map<UUID, ActiveTask> ACTIVE = new HashMap<>();
+    static final int PLAYER_BLOCKS_PER_TICK = 20;
+    static final int MAX_SELECTION_AGE = 100; // ticks an owner selection may wait before it must be analyzed again
+    private static final Map<Object, ActiveTask> ACTIVE = new HashMap<>();
+    // Tickets of one type are not counted per chunk, so overlapping tasks share them through this count
+    private static final Map<ServerLevel, Long2IntOpenHashMap> TICKET_REFS = new HashMap<>();
+    private static TicketType ticketType;
+
+    /** Receives the drops of blocks removed by an owner task instead of spawning them in the world. */
+    @FunctionalInterface
+    public interface DropSink {
+        void accept(ServerLevel level, BlockPos pos, ItemStack stack);
+    }
 
     private static class ActiveTask {
-        final ServerPlayer player;
-        final Level level;
-        final List<BlockPos> blocks;
+        final ServerPlayer player; // null for owner tasks
+        final ServerLevel level;
+        final TreeSelection selection;
         final ItemStack tool;
+        final int blocksPerTick;
+        final DropSink sink; // null drops into the world
+        final BreakEffects.Batch effects = new BreakEffects.Batch();
+        final int[] order; // selection indices in removal order
+        final long[] chunks; // chunks containing selected blocks, each holding a ticket for this task
         int index;
+        boolean released; // tickets given back; a task may be cancelled from its own drop sink and then finish
 
-        ActiveTask(ServerPlayer player, Level level, List<BlockPos> blocks, ItemStack tool) {
+        ActiveTask(ServerPlayer player, ServerLevel level, TreeSelection selection, ItemStack tool, int blocksPerTick, DropSink sink) {
             this.player = player;
             this.level = level;
-            this.blocks = blocks;
+            this.selection = selection;
             this.tool = tool;
+            this.blocksPerTick = blocksPerTick;
+            this.sink = sink;
+            LongOpenHashSet touched = new LongOpenHashSet();
+            this.order = removalOrder(selection, touched);
+            this.chunks = touched.toLongArray();
             this.index = 0;
         }
     }
 
-    public static void schedule(ServerPlayer player, Level level, List<BlockPos> blocks, ItemStack tool) {
+    public static void init() {
+        ticketType = Registry.register(BuiltInRegistries.TICKET_TYPE, ResourceLocation.tryParse(PrimeTimber.MOD_ID + ":removal"), new TicketType(0L, TicketType.FLAG_LOADING));
+        ServerTickEvents.END_SERVER_TICK.register(server -> tick());
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            // Levels are gone; tickets die with them
+            ACTIVE.clear();
+            TICKET_REFS.clear();
+        });
+    }
+
+    public static void schedule(ServerPlayer player, Level level, TreeSelection selection, ItemStack tool) {
         // Prevent overlapping tasks per player
-        ACTIVE.put(player.getUUID(), new ActiveTask(player, level, blocks, tool));
+        start(player.getUUID(), new ActiveTask(player, (ServerLevel) level, selection, tool, PLAYER_BLOCKS_PER_TICK, null));
+    }
+
+    /**
+     * Schedules removal without a player. Tasks are keyed by {@code owner} (any token with stable
+     * equals/hashCode, e.g. a machine position); scheduling again for the same owner replaces its task.
+     * No tool durability is consumed. Selections older than {@value #MAX_SELECTION_AGE} ticks are rejected;
+     * blocks that changed since the analysis are skipped during removal. Must be called on the server thread.
+     */
+    public static void schedule(Object owner, ServerLevel level, TreeSelection selection, int blocksPerTick, DropSink sink) {
+        if (blocksPerTick <= 0) throw new IllegalArgumentException("blocksPerTick must be positive");
+        long age = selection.age(level);
+        if (!selection.isEmpty() && age > MAX_SELECTION_AGE) throw new IllegalArgumentException("Selection is " + age + " ticks old; analyze the trees again");
+        start(owner, new ActiveTask(null, level, selection, ItemStack.EMPTY, blocksPerTick, sink));
+    }
+
+    /** Must be called on the server thread. */
+    public static boolean isActive(Object owner) {
+        return ACTIVE.containsKey(owner);
     }
 
-    static {
-        ServerTickEvents.END_SERVER_TICK.register(server -> {
-            Iterator<Map.Entry<UUID, ActiveTask>> it = ACTIVE.entrySet().iterator();
-            while (it.hasNext()) {
-                ActiveTask task = it.next().getValue();
-                if (task.player.isRemoved() || task.player.level() != task.level) {
-                    it.remove();
-                    continue;
+    /** Stops the owner's task after the current block. Must be called on the server thread; safe from a {@link DropSink}. */
+    public static boolean cancel(Object owner) {
+        ActiveTask task = ACTIVE.remove(owner);
+        if (task == null) return false;
+        releaseTickets(task);
+        return true;
+    }
+
+    private static void start(Object owner, ActiveTask task) {
+        acquireTickets(task); // before releasing a replaced task so shared chunks never drop to zero
+        ActiveTask replaced = ACTIVE.put(owner, task);
+        if (replaced != null) releaseTickets(replaced);
+    }
+
+    private static void tick() {
+        // Drop sinks may cancel or schedule tasks, so iterate a snapshot and re-check ownership per block
+        List<Map.Entry<Object, ActiveTask>> snapshot = new ArrayList<>(ACTIVE.entrySet());
+        tasks:
+        for (Map.Entry<Object, ActiveTask> entry : snapshot) {
+            Object owner = entry.getKey();
+            ActiveTask task = entry.getValue();
+            if (ACTIVE.get(owner) != task) continue;
+            if (task.player != null && (task.player.isRemoved() || task.player.level() != task.level)) {
+                finish(owner, task);
+                continue;
+            }
+            // Break a batch per tick for speed but still animated
+            int batch = Math.min(task.blocksPerTick, task.selection.size() - task.index);
+            for (int i = 0; i < batch; i++) {
+                if (ACTIVE.get(owner) != task) {
+                    // Cancelled or replaced from a drop sink during this batch
+                    task.effects.send(task.level);
+                    continue tasks;
                 }
-                // Break a batch per tick for speed but still animated
-                int batch = Math.min(20, task.blocks.size() - task.index); // up to 20 blocks per tick
-                for (int i = 0; i < batch; i++) {
-                    BlockPos pos = task.blocks.get(task.index + i);
-                    BlockState state = task.level.getBlockState(pos);
-                    if (!state.isAir()) {
-                        task.level.destroyBlock(pos, true, task.player);
-                        TreeChopper.applyDurability(task.tool, task.player, state); // durability only for logs
-                        if (task.tool.isEmpty()) {
-                            // Tool broke; play sound and abort remaining
-                            task.player.playSound(SoundEvents.ANVIL_BREAK, 1f, 1f);
-                            it.remove();
-                            PrimeTimber.LOGGER.info("Timber aborted early - tool broke after {} blocks", task.index + i + 1);
-                            return;
-                        }
-                    }
+                int idx = task.order[task.index + i];
+                BlockPos pos = task.selection.pos(idx);
+                if (!task.level.hasChunkAt(pos)) {
+                    // Ticket should prevent this; never load synchronously or skip blocks unnoticed
+                    task.effects.send(task.level);
+                    finish(owner, task);
+                    PrimeTimber.LOGGER.warn("Timber aborted - chunk at {} unloaded after {} of {} blocks", pos, task.index + i, task.selection.size());
+                    continue tasks;
                 }
-                task.index += batch;
-                if (task.index >= task.blocks.size()) {
-                    task.player.playSound(SoundEvents.WOOD_BREAK, 0.8f, 1.2f);
-                    PrimeTimber.LOGGER.info("Timber finished removing {} blocks", task.blocks.size());
-                    it.remove();
+                BlockState state = task.level.getBlockState(pos);
+                boolean log = task.selection.isLog(idx);
+                // Leave blocks placed since the analysis alone (chests, player builds, ...)
+                if (!TreeAnalyzer.matchesSelected(state, log)) continue;
+                destroyWithoutEffects(task.level, pos, state, task.player, task.sink);
+                task.effects.add(pos, state);
+                if (task.player == null || !log) continue; // durability only for logs
+                TreeChopper.applyDurability(task.tool, task.player);
+                if (task.tool.isEmpty()) {
+                    task.effects.send(task.level);
+                    // Tool broke; play sound and abort remaining
+                    task.player.playSound(SoundEvents.ANVIL_BREAK, 1f, 1f);
+                    finish(owner, task);
+                    PrimeTimber.LOGGER.info("Timber aborted early - tool broke after {} blocks", task.index + i + 1);
+                    continue tasks;
                 }
             }
-        });
+            task.effects.send(task.level); // one packet per batch instead of one level event per block
+            task.index += batch;
+            if (task.index >= task.selection.size()) {
+                if (task.player != null) task.player.playSound(SoundEvents.WOOD_BREAK, 0.8f, 1.2f);
+                PrimeTimber.LOGGER.info("Timber finished removing {} blocks", task.selection.size());
+                finish(owner, task);
+            }
+        }
+    }
+
+    private static void finish(Object owner, ActiveTask task) {
+        ACTIVE.remove(owner, task); // the owner may already hold a newer task
+        releaseTickets(task);
+    }
+
+    /**
+     * Top-down by chunk section, then grouped by chunk column, then top-down inside the section, so
+     * consecutive destroys stay in the same section instead of following hash order. Collects the chunks
+     * actually containing blocks into {@code chunks} on the way.
+     */
+    static int[] removalOrder(TreeSelection selection, LongSet chunks) {
+        int n = selection.size();
+        int[] order = new int[n];
+        long[] keys = new long[n];
+        for (int i=0;i<n;i++) {
+            order[i] = i;
+            BlockPos p = selection.pos(i);
+            keys[i] = sortKey(p.getX(), p.getY(), p.getZ());
+            chunks.add(ChunkPos.asLong(p.getX() >> 4, p.getZ() >> 4));
+        }
+        IntArrays.quickSort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        return order;
+    }
+
+    private static long sortKey(int x, int y, int z) {
+        // sectionY desc | chunkX | chunkZ | y desc within section | local z | local x
+        long key = (long) (0x7FF - ((y >> 4) + 1024)) << 36; // sections stay well inside +-1024
+        key |= (long) ((x >> 4) & 0x1FF) << 27; // chunk offsets only need to be consistent within a tree's span
+        key |= (long) ((z >> 4) & 0x1FF) << 18;
+        key |= (long) (15 - (y & 15)) << 8;
+        key |= (long) (z & 15) << 4;
+        key |= (x & 15);
+        return key;
+    }
+
+    private static void acquireTickets(ActiveTask task) {
+        Long2IntOpenHashMap refs = TICKET_REFS.computeIfAbsent(task.level, l -> new Long2IntOpenHashMap());
+        for (long chunk : task.chunks) {
+            if (refs.addTo(chunk, 1) == 0) task.level.getChunkSource().addTicketWithRadius(ticketType, new ChunkPos(chunk), 0);
+        }
+    }
+
+    private static void releaseTickets(ActiveTask task) {
+        if (task.released) return;
+        task.released = true;
+        Long2IntOpenHashMap refs = TICKET_REFS.get(task.level);
+        if (refs == null) return;
+        for (long chunk : task.chunks) {
+            int left = refs.addTo(chunk, -1) - 1;
+            if (left <= 0) {
+                refs.remove(chunk);
+                task.level.getChunkSource().removeTicketWithRadius(ticketType, new ChunkPos(chunk), 0);
+            }
+        }
+        if (refs.isEmpty()) TICKET_REFS.remove(task.level);
+    }
+
+    /** Same as {@link Level#destroyBlock} minus the per-block level event; effects are sent coalesced via {@link BreakEffects}. */
+    private static void destroyWithoutEffects(ServerLevel level, BlockPos pos, BlockState state, ServerPlayer player, DropSink sink) {
+        BlockEntity blockEntity = state.hasBlockEntity() ? level.getBlockEntity(pos) : null;
+        if (sink == null) {
+            Block.dropResources(state, level, pos, blockEntity, player, ItemStack.EMPTY);
+        } else {
+            for (ItemStack drop : Block.getDrops(state, level, pos, blockEntity, player, ItemStack.EMPTY)) sink.accept(level, pos, drop);
+            state.spawnAfterBreak(level, pos, ItemStack.EMPTY, true);
+        }
+        if (level.setBlock(pos, level.getFluidState(pos).createLegacyBlock(), Block.UPDATE_ALL)) {
+            level.gameEvent(GameEvent.BLOCK_DESTROY, pos, GameEvent.Context.of(player, state));
+        }
     }
 }
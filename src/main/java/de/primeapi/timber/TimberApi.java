@@ -0,0 +1,119 @@
+package de.primeapi.timber;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Public entry point for felling trees without a player, e.g. from tree farms or automation mods.
+ * Analysis requests may be submitted from any thread; analysis runs on the server thread at the end of
+ * the tick under a per-tick budget, and the returned futures complete on the server thread.
+ * {@link #isFelling} and {@link #cancel} must be called on the server thread.
+ */
+public final class TimberApi {
+    private static final int TRUNKS_PER_TICK = 32; // analysis budget per server tick, see TreeAnalyzer.GroveBatch
+    private static final Queue<Request> PENDING = new ConcurrentLinkedQueue<>();
+    private static Request current; // partly analyzed request carried over to the next tick; server thread only
+
+    private record Request(ServerLevel level, TreeAnalyzer.GroveBatch batch, List<CompletableFuture<TreeSelection>> futures) {}
+
+    private TimberApi() {}
+
+    /**
+     * Queues a batch of trunk positions for analysis. Adjacent trees of the same grove share one partition.
+     * The returned futures are aligned with {@code trunks}; a position that is not a natural tree
+     * completes with {@link TreeSelection#EMPTY}. Large batches are spread over several ticks and each
+     * future completes as soon as its grove is done.
+     */
+    public static List<CompletableFuture<TreeSelection>> analyze(ServerLevel level, Collection<BlockPos> trunks) {
+        return analyze(level, trunks, TreeChopper.MAX_BLOCKS);
+    }
+
+    public static List<CompletableFuture<TreeSelection>> analyze(ServerLevel level, Collection<BlockPos> trunks, int hardCap) {
+        List<BlockPos> copy = new ArrayList<>(trunks.size());
+        for (BlockPos p : trunks) copy.add(p.immutable());
+        List<CompletableFuture<TreeSelection>> futures = new ArrayList<>(copy.size());
+        for (int i=0;i<copy.size();i++) futures.add(new CompletableFuture<>());
+        if (!copy.isEmpty()) PENDING.add(new Request(level, new TreeAnalyzer.GroveBatch(level, copy, hardCap), futures));
+        return Collections.unmodifiableList(futures);
+    }
+
+    /**
+     * Analyzes the trunks and schedules removal of every resulting selection under {@code owner},
+     * replacing any task that owner already has. The future completes with the selections once
+     * removal has been scheduled. Invalid arguments are rejected immediately, before any analysis. A batch whose
+     * analysis spans more than {@link RemovalScheduler#MAX_SELECTION_AGE} ticks (thousands of trunks) fails
+     * because its first groves would be stale; split such batches.
+     */
+    public static CompletableFuture<List<TreeSelection>> fell(Object owner, ServerLevel level, Collection<BlockPos> trunks, int blocksPerTick, RemovalScheduler.DropSink sink) {
+        Objects.requireNonNull(owner, "owner");
+        if (blocksPerTick <= 0) throw new IllegalArgumentException("blocksPerTick must be positive");
+        List<CompletableFuture<TreeSelection>> futures = analyze(level, trunks);
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<TreeSelection> selections = new ArrayList<>(futures.size());
+            for (CompletableFuture<TreeSelection> f : futures) selections.add(f.join());
+            // The same trunk may be requested twice; grove selections are otherwise disjoint
+            TreeSelection combined = TreeSelection.union(new ArrayList<>(new LinkedHashSet<>(selections)));
+            if (!combined.isEmpty()) RemovalScheduler.schedule(owner, level, combined, blocksPerTick, sink);
+            return selections;
+        });
+    }
+
+    /** Must be called on the server thread. */
+    public static boolean isFelling(Object owner) {
+        return RemovalScheduler.isActive(owner);
+    }
+
+    /** Stops the owner's felling after the current block. Must be called on the server thread, e.g. from its drop sink. */
+    public static boolean cancel(Object owner) {
+        return RemovalScheduler.cancel(owner);
+    }
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(TimberApi::tick);
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            // Levels of this server are gone; nothing queued can run anymore
+            IllegalStateException stopped = new IllegalStateException("Server stopped before timber analysis ran");
+            if (current != null) fail(current, stopped);
+            current = null;
+            Request request;
+            while ((request = PENDING.poll()) != null) fail(request, stopped);
+        });
+    }
+
+    private static void tick(MinecraftServer server) {
+        int budget = TRUNKS_PER_TICK;
+        while (budget > 0) {
+            if (current == null) {
+                current = PENDING.poll();
+                if (current == null) break;
+                if (current.level().getServer() != server) {
+                    fail(current, new IllegalStateException("Timber analysis requested for a level of another server"));
+                    current = null;
+                    continue;
+                }
+            }
+            Request request = current;
+            try {
+                // A single grove is not split, so one oversized grove may overrun the budget once
+                budget -= request.batch().step(budget, (selection, i) -> request.futures().get(i).complete(selection));
+            } catch (RuntimeException e) {
+                PrimeTimber.LOGGER.error("Timber batch analysis failed", e);
+                fail(request, e);
+                current = null;
+                continue;
+            }
+            if (request.batch().isDone()) current = null;
+        }
+    }
+
+    private static void fail(Request request, Throwable cause) {
+        for (CompletableFuture<TreeSelection> f : request.futures()) f.completeExceptionally(cause);
+    }
+}
@@ -1,11 +1,15 @@
 package de.primeapi.timber;
 
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.core.BlockPos;
 import net.minecraft.tags.BlockTags;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.LeavesBlock;
 import net.minecraft.world.level.block.state.BlockState;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import java.util.*;
+import java.util.function.ObjIntConsumer;
 
 /** Advanced tree analysis selecting only the intended tree using trunk base and natural leaves with multi-source BFS partition. */
 public final class TreeAnalyzer {
@@ -19,6 +23,9 @@ public final class TreeAnalyzer {
     private static final int MIN_NATURAL_LEAVES = 5;
     private static final int BASE_LOG_SPREAD = 6; // max horizontal spread from trunk center for non-jungle
     private static final int JUNGLE_LOG_SPREAD = 9; // jungle allows wider branching
+    private static final int MAX_SOURCES = 18; // per requested tree
+    // Compares every incremental repair with a full analysis; on in dev or with -Dprimetimber.verifyRepair=true
+    private static final boolean VERIFY_REPAIR = Boolean.getBoolean("primetimber.verifyRepair") || FabricLoader.getInstance().isDevelopmentEnvironment();
 
     private static final Set<String> SOIL_SUFFIXES = Set.of(
             "dirt","grass_block","podzol","rooted_dirt","mud","muddy_mangrove_roots","mycelium","crimson_nylium","warped_nylium"
@@ -26,41 +33,254 @@ public final class TreeAnalyzer {
 
     private TreeAnalyzer() {}
 
-    public static List<BlockPos> analyze(Level level, BlockPos startPos, BlockState startState, int hardCap) {
-        if (!isLogOrStem(startState)) return List.of();
+    public static TreeSelection analyze(Level level, BlockPos startPos, BlockState startState, int hardCap) {
+        return track(level, startPos, startState, hardCap).selection();
+    }
+
+    /** Like {@link #analyze} but keeps the partition so later block changes can be applied with {@link #repair}. */
+    public static TrackedPartition track(Level level, BlockPos startPos, BlockState startState, int hardCap) {
+        TrackedPartition tracked = new TrackedPartition(hardCap);
+        rebuild(level, tracked, startPos, startState);
+        return tracked;
+    }
+
+    /**
+     * Applies changed positions to a tracked partition and returns the updated selection. A block is
+     * reassigned only if it changed, or if every same-tree neighbour one step closer to a source was
+     * reassigned; the cleared area is then re-grown from its untouched boundary. If re-growing would alter a
+     * block outside the cleared area, that block joins the changed set and the round is retried. A full
+     * recompute happens only when a trunk source, the trunk column or the tree's validity changed, or a visit
+     * cap was hit.
+     */
+    public static TreeSelection repair(Level level, TrackedPartition tracked, Collection<BlockPos> changed) {
+        if (tracked.visited == null || changed.isEmpty()) return tracked.selection;
+        if (tracked.truncated || needsRebuild(level, tracked, changed)) {
+            rebuildFromStart(level, tracked);
+            return tracked.selection;
+        }
+        Map<BlockPos, VisitInfo> visited = tracked.visited;
+        int before = visited.size();
+        Set<BlockPos> seeds = new HashSet<>();
+        for (BlockPos p : changed) seeds.add(p.immutable());
+        int rounds = 0;
+        RepairGuard guard;
+        while (true) {
+            rounds++;
+            Set<BlockPos> invalid = invalidate(visited, seeds);
+            Map<BlockPos, VisitInfo> removed = new HashMap<>();
+            for (BlockPos p : invalid) {
+                VisitInfo old = visited.remove(p);
+                if (old != null) removed.put(p, old);
+            }
+            // Re-grow from the surviving boundary in distance order
+            PriorityQueue<Node> q = new PriorityQueue<>(Comparator.comparingInt(Node::dist));
+            Set<BlockPos> frontier = new HashSet<>();
+            for (BlockPos p : invalid) {
+                for (BlockPos n : adjacency(p, true)) {
+                    VisitInfo ni = visited.get(n);
+                    if (ni != null && frontier.add(n)) q.add(new Node(n, ni.treeId, ni.dist));
+                }
+            }
+            guard = new RepairGuard(invalid);
+            int maxVisit = MAX_VISIT * tracked.search.focusCount;
+            int visitCap = tracked.hardCap * tracked.search.focusCount;
+            while (!q.isEmpty() && visited.size() < maxVisit && visited.size() < visitCap) {
+                relax(level, q.poll(), tracked.search, visited, q, guard);
+            }
+            if (!q.isEmpty()) {
+                // A full search would have stopped at the cap in a different place
+                rebuildFromStart(level, tracked);
+                return tracked.selection;
+            }
+            if (guard.escaped.isEmpty()) break;
+            // Roll back this round and clear the blocks it wanted to alter as well
+            for (BlockPos p : guard.created) visited.remove(p);
+            visited.putAll(removed);
+            seeds.addAll(guard.escaped);
+        }
+        tracked.selection = collect(level, visited, 0, tracked.trunk, tracked.hardCap);
+        PrimeTimber.LOGGER.debug("Timber repair reassigned {} of {} blocks for {} changes in {} rounds",
+                guard.invalid.size(), before, changed.size(), rounds);
+        if (VERIFY_REPAIR) verifyRepair(level, tracked);
+        return tracked.selection;
+    }
+
+    /** Collects {@code seeds} plus every block whose path to a source ran only through invalidated blocks. */
+    private static Set<BlockPos> invalidate(Map<BlockPos, VisitInfo> visited, Set<BlockPos> seeds) {
+        // Walk in distance order so every parent is decided before its children are looked at
+        Set<BlockPos> invalid = new HashSet<>(seeds);
+        Set<BlockPos> queued = new HashSet<>();
+        PriorityQueue<Node> walk = new PriorityQueue<>(Comparator.comparingInt(Node::dist));
+        for (BlockPos p : seeds) {
+            VisitInfo info = visited.get(p);
+            if (info != null && queued.add(p)) walk.add(new Node(p, info.treeId, info.dist));
+        }
+        while (!walk.isEmpty()) {
+            Node cur = walk.poll();
+            VisitInfo info = visited.get(cur.pos);
+            // Contested blocks depend on every tied parent, so they are always recomputed
+            if (!invalid.contains(cur.pos) && !info.contested && hasSurvivingParent(cur.pos, info, visited, invalid)) continue;
+            invalid.add(cur.pos);
+            for (BlockPos n : adjacency(cur.pos, true)) {
+                VisitInfo ni = visited.get(n);
+                if (ni == null || ni.dist != info.dist + 1) continue;
+                if (ni.treeId != info.treeId && !ni.contested) continue; // reached through another tree only
+                if (queued.add(n)) walk.add(new Node(n, ni.treeId, ni.dist));
+            }
+        }
+        return invalid;
+    }
+
+    /** Whether a same-tree neighbour one step closer to the source keeps {@code pos} reachable as before. */
+    private static boolean hasSurvivingParent(BlockPos pos, VisitInfo info, Map<BlockPos, VisitInfo> visited, Set<BlockPos> invalid) {
+        for (BlockPos m : adjacency(pos, true)) {
+            VisitInfo mi = visited.get(m);
+            if (mi != null && mi.dist == info.dist - 1 && mi.treeId == info.treeId && !invalid.contains(m)) return true;
+        }
+        return false;
+    }
+
+    /** Debug check: the repaired selection must equal a fresh analysis; adopts the fresh one if not. */
+    private static void verifyRepair(Level level, TrackedPartition tracked) {
+        TrackedPartition fresh = new TrackedPartition(tracked.hardCap);
+        rebuild(level, fresh, tracked.start, level.getBlockState(tracked.start));
+        if (fresh.selection.sameBlocks(tracked.selection)) return;
+        PrimeTimber.LOGGER.warn("Timber repair diverged from full analysis at {}: {} blocks ({} logs) vs {} ({} logs)",
+                tracked.start, tracked.selection.size(), tracked.selection.logCount(), fresh.selection.size(), fresh.selection.logCount());
+        tracked.copyFrom(fresh);
+    }
+
+    private static void rebuildFromStart(Level level, TrackedPartition tracked) {
+        // The original start may have been broken; fall back to the trunk base
+        BlockPos from = isLogOrStem(level.getBlockState(tracked.start)) ? tracked.start : tracked.trunk.base;
+        rebuild(level, tracked, from, level.getBlockState(from));
+    }
+
+    private static void rebuild(Level level, TrackedPartition tracked, BlockPos startPos, BlockState startState) {
+        tracked.start = startPos.immutable();
+        tracked.trunk = null;
+        tracked.sources = null;
+        tracked.search = null;
+        tracked.visited = null;
+        tracked.truncated = false;
+        tracked.selection = TreeSelection.EMPTY;
+        Trunk trunk = prepare(level, startPos, startState);
+        if (trunk == null) return;
+        List<TrunkSource> sources = new ArrayList<>();
+        sources.add(new TrunkSource(0, trunk.cluster, trunk.center));
+        findAllTrunkSources(level, trunk.center, startState, trunk.hRadius, sources);
+        if (sources.size() > MAX_SOURCES) return; // safety cap
+        PartitionResult partition = multiSourcePartition(level, sources, 1, tracked.hardCap, startState, trunk.hRadius, trunk.maxLeafDepth, trunk.familyKey, trunk.jungle);
+        tracked.trunk = trunk;
+        tracked.sources = sources;
+        tracked.search = partition.search;
+        tracked.visited = partition.map;
+        tracked.truncated = partition.truncated;
+        tracked.selection = collect(level, partition.map, 0, trunk, tracked.hardCap);
+    }
+
+    /**
+     * Changes that alter what {@link #prepare} or {@link #findAllTrunkSources} would compute: trunk clusters and
+     * their soil, new base candidates, the start column, the trunk height driving the leaf depth, and the
+     * natural-leaf checks near the start.
+     */
+    private static boolean needsRebuild(Level level, TrackedPartition tracked, Collection<BlockPos> changed) {
+        Trunk trunk = tracked.trunk;
+        boolean heightChecked = false, leavesChecked = false;
+        for (BlockPos p : changed) {
+            for (BlockPos q : List.of(p, p.above())) {
+                if (inAnyCluster(tracked.sources, q)) return true;
+                if (tracked.inSourceScan(q) && isBaseCandidate(level, q, trunk.familyState)) return true;
+            }
+            // A new log next to a cluster would widen it
+            if (sameFamily(trunk.familyState, level.getBlockState(p))) {
+                for (int dx=-1; dx<=1; dx++) for (int dz=-1; dz<=1; dz++) {
+                    if ((dx != 0 || dz != 0) && inAnyCluster(tracked.sources, p.offset(dx, 0, dz))) return true;
+                }
+            }
+            if (p.getY() > trunk.base.getY() && trunk.cluster.contains(new BlockPos(p.getX(), trunk.base.getY(), p.getZ()))) {
+                if (p.getY() <= tracked.start.getY()) return true; // trunk base lookup walks this column
+                if (!heightChecked) {
+                    heightChecked = true;
+                    if (maxLeafDepth(level, trunk.cluster, trunk.familyState, trunk.jungle) != trunk.maxLeafDepth) return true;
+                }
+            }
+            if (!leavesChecked && inLeafCheck(p, tracked.start, trunk.base)) {
+                leavesChecked = true;
+                if (!hasNaturalLeavesNearby(level, tracked.start) && !scanUpwardForLeaves(level, trunk.base, trunk.familyState)) return true;
+            }
+        }
+        return false;
+    }
+
+    // Mirrors the boxes of hasNaturalLeavesNearby and scanUpwardForLeaves
+    private static boolean inLeafCheck(BlockPos p, BlockPos start, BlockPos base) {
+        if (Math.abs(p.getX()-start.getX()) <= 3 && Math.abs(p.getY()-start.getY()) <= 3 && Math.abs(p.getZ()-start.getZ()) <= 3) return true;
+        int dy = p.getY() - base.getY();
+        return Math.abs(p.getX()-base.getX()) <= 4 && Math.abs(p.getZ()-base.getZ()) <= 4 && dy >= 0 && dy <= UPWARD_LEAF_SCAN;
+    }
+
+    private static boolean isBaseCandidate(Level level, BlockPos p, BlockState family) {
+        if (!sameFamily(family, level.getBlockState(p))) return false;
+        BlockState below = level.getBlockState(p.below());
+        return !sameFamily(family, below) && validSoil(below);
+    }
+
+    /**
+     * Analyzes several trunks at once. Trunks of the same family standing close to each other (a grove)
+     * share one multi-source partition instead of each running its own. The result is aligned with
+     * {@code starts}; positions that do not resolve to a valid tree map to {@link TreeSelection#EMPTY}.
+     */
+    public static List<TreeSelection> analyzeGrove(Level level, List<BlockPos> starts, int hardCap) {
+        List<TreeSelection> results = new ArrayList<>(Collections.nCopies(starts.size(), TreeSelection.EMPTY));
+        GroveBatch batch = new GroveBatch(level, starts, hardCap);
+        while (!batch.isDone()) batch.step(Integer.MAX_VALUE, (selection, request) -> results.set(request, selection));
+        return results;
+    }
+
+    /** Validates the start block and resolves its trunk; null if it is not a natural tree. */
+    private static Trunk prepare(Level level, BlockPos startPos, BlockState startState) {
+        if (!isLogOrStem(startState)) return null;
         String familyKey = familyKey(startState);
         boolean isJungle = familyKey.equals("jungle");
         int hRadius = isJungle ? JUNGLE_H_RADIUS : BASE_H_RADIUS;
-        int maxLeafDepth = isJungle ? JUNGLE_MAX_LEAF_DEPTH : BASE_MAX_LEAF_DEPTH;
         BlockPos base = findTrunkBase(level, startPos, startState);
-        if (base == null) return List.of();
-        if (!validSoil(level.getBlockState(base.below()))) return List.of();
-        if (!hasNaturalLeavesNearby(level, startPos) && !scanUpwardForLeaves(level, base, startState)) return List.of();
+        if (base == null) return null;
+        if (!validSoil(level.getBlockState(base.below()))) return null;
+        if (!hasNaturalLeavesNearby(level, startPos) && !scanUpwardForLeaves(level, base, startState)) return null;
         Set<BlockPos> mainCluster = discoverTrunkCluster(level, base, startState);
         BlockPos mainCenter = averagePos(mainCluster);
-        int treeHeightApprox = estimateHeight(level, mainCluster, startState);
-        if (treeHeightApprox > 16 && !isJungle) maxLeafDepth += 4; // allow larger crowns for tall normal trees
-        if (treeHeightApprox > 22) maxLeafDepth += 4; // further extension for very tall (mega spruce etc.)
-        List<TrunkSource> sources = findAllTrunkSources(level, mainCenter, startState, mainCluster, hRadius, familyKey);
-        if (sources.size() > 18) return List.of(); // safety cap
-        PartitionResult partition = multiSourcePartition(level, sources, hardCap, startState, hRadius, maxLeafDepth, familyKey, isJungle);
-        if (partition == null) return List.of();
-        Set<BlockPos> myBlocks = new HashSet<>();
-        for (Map.Entry<BlockPos, VisitInfo> e : partition.map.entrySet()) {
+        int maxLeafDepth = maxLeafDepth(level, mainCluster, startState, isJungle);
+        return new Trunk(startState, familyKey, isJungle, hRadius, maxLeafDepth, base, mainCluster, mainCenter);
+    }
+
+    /** Blocks won uncontested by {@code treeId}, plus the trunk cluster. Leaf family was enforced during the search. */
+    private static TreeSelection collect(Level level, Map<BlockPos, VisitInfo> visited, int treeId, Trunk trunk, int hardCap) {
+        LongOpenHashSet seen = new LongOpenHashSet();
+        LongArrayList logs = new LongArrayList();
+        LongArrayList leaves = new LongArrayList();
+        for (Map.Entry<BlockPos, VisitInfo> e : visited.entrySet()) {
             VisitInfo info = e.getValue();
-            if (info.treeId == 0 && !info.contested) {
-                BlockState s = level.getBlockState(e.getKey());
-                // Enforce leaf family match
-                if (s.is(BlockTags.LEAVES)) {
-                    if (leafFamilyKey(s).equals(familyKey)) myBlocks.add(e.getKey());
-                } else {
-                    myBlocks.add(e.getKey());
-                }
+            if (info.treeId == treeId && !info.contested) {
+                long packed = e.getKey().asLong();
+                if (!seen.add(packed)) continue;
+                if (info.leaf) leaves.add(packed); else logs.add(packed);
             }
         }
-        myBlocks.addAll(mainCluster); // ensure trunk cluster included
-        if (myBlocks.size() > hardCap) return List.of();
-        return new ArrayList<>(myBlocks);
+        for (BlockPos p : trunk.cluster) if (seen.add(p.asLong())) logs.add(p.asLong()); // ensure trunk cluster included
+        if (seen.size() > hardCap) return TreeSelection.EMPTY;
+        long[] positions = new long[logs.size() + leaves.size()];
+        logs.getElements(0, positions, 0, logs.size());
+        leaves.getElements(0, positions, logs.size(), leaves.size());
+        return new TreeSelection(positions, logs.size(), trunk.base, trunk.familyKey, level.getGameTime());
+    }
+
+    private static int maxLeafDepth(Level level, Set<BlockPos> cluster, BlockState family, boolean isJungle) {
+        int maxLeafDepth = isJungle ? JUNGLE_MAX_LEAF_DEPTH : BASE_MAX_LEAF_DEPTH;
+        int treeHeightApprox = estimateHeight(level, cluster, family);
+        if (treeHeightApprox > 16 && !isJungle) maxLeafDepth += 4; // allow larger crowns for tall normal trees
+        if (treeHeightApprox > 22) maxLeafDepth += 4; // further extension for very tall (mega spruce etc.)
+        return maxLeafDepth;
     }
 
     private static int estimateHeight(Level level, Set<BlockPos> cluster, BlockState family) {
@@ -85,6 +305,11 @@ public final class TreeAnalyzer {
         return state.is(BlockTags.LOGS) || state.is(BlockTags.CRIMSON_STEMS) || state.is(BlockTags.WARPED_STEMS);
     }
 
+    /** Tag-only check that a selected position still holds the kind of block recorded for it; no family lookup. */
+    static boolean matchesSelected(BlockState state, boolean log) {
+        return log ? isLogOrStem(state) : state.is(BlockTags.LEAVES);
+    }
+
     private static boolean sameFamily(BlockState baseFamily, BlockState other) {
         if (!isLogOrStem(other)) return false;
         return isSameFamily(baseFamily, other);
@@ -211,10 +436,9 @@ public final class TreeAnalyzer {
         return c==0? BlockPos.ZERO : new BlockPos((int)Math.round((double)sx/c),(int)Math.round((double)sy/c),(int)Math.round((double)sz/c));
     }
 
-    private static List<TrunkSource> findAllTrunkSources(Level level, BlockPos center, BlockState family, Set<BlockPos> mainCluster, int hRadius, String familyKey) {
-        List<TrunkSource> sources = new ArrayList<>();
-        sources.add(new TrunkSource(0, mainCluster, averagePos(mainCluster)));
-        int nextId = 1;
+    /** Appends every further trunk base around {@code center} to {@code sources}; ids continue from the list size. */
+    private static void findAllTrunkSources(Level level, BlockPos center, BlockState family, int hRadius, List<TrunkSource> sources) {
+        int nextId = sources.size();
         // broaden vertical scan: allow bases up to 8 above and 4 below center
         for (int dx=-hRadius; dx<=hRadius; dx++) {
             for (int dz=-hRadius; dz<=hRadius; dz++) {
@@ -225,7 +449,7 @@ public final class TreeAnalyzer {
                     BlockPos below = p.below();
                     if (sameFamily(family, level.getBlockState(below))) continue; // not a base
                     if (!validSoil(level.getBlockState(below))) continue;
-                    if (mainCluster.contains(p)) continue;
+                    if (inAnyCluster(sources, p)) continue;
                     Set<BlockPos> cluster = discoverTrunkCluster(level, p, family);
                     BlockPos cCenter = averagePos(cluster);
                     boolean duplicate = false;
@@ -236,10 +460,18 @@ public final class TreeAnalyzer {
                 }
             }
         }
-        return sources;
     }
 
-    private static PartitionResult multiSourcePartition(Level level, List<TrunkSource> sources, int hardCap, BlockState family, int hRadius, int maxLeafDepth, String familyKey, boolean jungle) {
+    private static boolean inAnyCluster(List<TrunkSource> sources, BlockPos p) {
+        for (TrunkSource ts : sources) if (ts.cluster.contains(p)) return true;
+        return false;
+    }
+
+    /**
+     * Multi-source BFS over all trunk sources. Sources {@code 0..focusCount-1} are the trees actually
+     * requested; the search stays within their bounds and the visit caps scale with their count.
+     */
+    private static PartitionResult multiSourcePartition(Level level, List<TrunkSource> sources, int focusCount, int hardCap, BlockState family, int hRadius, int maxLeafDepth, String familyKey, boolean jungle) {
         Map<BlockPos, VisitInfo> visited = new HashMap<>();
         ArrayDeque<Node> q = new ArrayDeque<>();
         Map<Integer, BlockPos> centers = new HashMap<>();
@@ -247,44 +479,77 @@ public final class TreeAnalyzer {
             centers.put(src.id, src.center);
             for (BlockPos pos : src.cluster) {
                 q.add(new Node(pos, src.id, 0));
-                visited.put(pos, new VisitInfo(src.id,0,false));
+                visited.put(pos, new VisitInfo(src.id,0,false,false));
             }
         }
         int logSpread = jungle ? JUNGLE_LOG_SPREAD : BASE_LOG_SPREAD;
-        while (!q.isEmpty() && visited.size() < MAX_VISIT && visited.size() < hardCap) {
-            Node node = q.poll();
-            BlockState state = level.getBlockState(node.pos);
-            boolean isLog = isLogOrStem(state);
-            for (BlockPos n : adjacency(node.pos, true)) { // always 26-neighbor for logs/leaves pathing
-                if (!inBounds(n, centers.get(0), hRadius)) continue;
-                BlockState ns = level.getBlockState(n);
-                boolean nIsLog = isLogOrStem(ns) && isSameFamily(family, ns);
-                boolean nIsLeaf = isLeafCandidate(ns, familyKey);
-                if (!(nIsLog || nIsLeaf)) continue;
-                // Limit horizontal spread for logs relative to their own trunk center
-                if (nIsLog) {
-                    BlockPos center = centers.get(node.treeId);
-                    int dx = n.getX() - center.getX();
-                    int dz = n.getZ() - center.getZ();
-                    if (dx*dx + dz*dz > logSpread*logSpread) continue; // too far from trunk cluster
-                }
-                int nextDist = node.dist + 1;
-                if (nIsLeaf && nextDist > maxLeafDepth) continue;
-                VisitInfo existing = visited.get(n);
-                if (existing == null) {
-                    visited.put(n, new VisitInfo(node.treeId, nextDist, false));
-                    q.add(new Node(n, node.treeId, nextDist));
-                } else {
-                    if (nextDist < existing.dist) {
-                        visited.put(n, new VisitInfo(node.treeId, nextDist, false));
-                        q.add(new Node(n, node.treeId, nextDist));
-                    } else if (nextDist == existing.dist && existing.treeId != node.treeId) {
-                        visited.put(n, new VisitInfo(existing.treeId, existing.dist, true));
-                    }
-                }
+        Search search = new Search(family, familyKey, hRadius, maxLeafDepth, logSpread, centers, focusCount);
+        int maxVisit = MAX_VISIT * focusCount;
+        int visitCap = hardCap * focusCount;
+        while (!q.isEmpty() && visited.size() < maxVisit && visited.size() < visitCap) {
+            relax(level, q.poll(), search, visited, q, null);
+        }
+        return new PartitionResult(visited, search, !q.isEmpty());
+    }
+
+    /**
+     * Expands one node to its neighbours; shared by the full search and {@link #repair}. While repairing,
+     * {@code guard} limits writes to cleared or newly reached blocks, and a block that is newly reached or
+     * reached shorter may have tie parents that were never queued, so those are re-expanded too; in the full
+     * search every such parent is still queued anyway.
+     */
+    private static void relax(Level level, Node node, Search search, Map<BlockPos, VisitInfo> visited, Queue<Node> q, RepairGuard guard) {
+        VisitInfo self = visited.get(node.pos);
+        if (self == null || self.dist < node.dist) return; // superseded by a shorter path
+        int treeId = self.treeId; // final by now: every tie comes from a node one step closer, all expanded earlier
+        for (BlockPos n : adjacency(node.pos, true)) { // always 26-neighbor for logs/leaves pathing
+            if (!inFocusBounds(n, search.centers, search.focusCount, search.hRadius)) continue;
+            BlockState ns = level.getBlockState(n);
+            boolean nIsLog = isLogOrStem(ns) && isSameFamily(search.family, ns);
+            boolean nIsLeaf = isLeafCandidate(ns, search.familyKey);
+            if (!(nIsLog || nIsLeaf)) continue;
+            // Limit horizontal spread for logs relative to their own trunk center
+            if (nIsLog) {
+                BlockPos center = search.centers.get(treeId);
+                int dx = n.getX() - center.getX();
+                int dz = n.getZ() - center.getZ();
+                if (dx*dx + dz*dz > search.logSpread*search.logSpread) continue; // too far from trunk cluster
             }
+            int nextDist = node.dist + 1;
+            if (nIsLeaf && nextDist > search.maxLeafDepth) continue;
+            VisitInfo existing = visited.get(n);
+            if (existing == null || nextDist < existing.dist) {
+                if (guard != null && !guard.mayWrite(n, existing)) continue;
+                visited.put(n, new VisitInfo(treeId, nextDist, false, !nIsLog));
+                q.add(new Node(n, treeId, nextDist));
+                if (guard != null) requeueTieParents(n, node.pos, node.dist, visited, q);
+            } else if (nextDist == existing.dist && existing.treeId != treeId) {
+                // Ties between requested trees go to the lowest id; only a non-requested neighbour makes a block contested
+                boolean bothFocus = existing.treeId < search.focusCount && treeId < search.focusCount;
+                int owner = bothFocus ? Math.min(existing.treeId, treeId)
+                        : existing.treeId >= search.focusCount && treeId >= search.focusCount ? Math.min(existing.treeId, treeId)
+                        : Math.max(existing.treeId, treeId); // the non-requested tree keeps it
+                boolean contested = existing.contested || !bothFocus;
+                if (owner == existing.treeId && contested == existing.contested) continue;
+                if (guard != null && !guard.mayWrite(n, existing)) continue;
+                visited.put(n, new VisitInfo(owner, existing.dist, contested, existing.leaf));
+                // Children inherit the owner, so re-expand under the new one
+                if (guard != null) q.add(new Node(n, owner, existing.dist));
+            }
+        }
+    }
+
+    private static void requeueTieParents(BlockPos pos, BlockPos expanding, int dist, Map<BlockPos, VisitInfo> visited, Queue<Node> q) {
+        for (BlockPos m : adjacency(pos, true)) {
+            if (m.equals(expanding)) continue;
+            VisitInfo mi = visited.get(m);
+            if (mi != null && mi.dist == dist) q.add(new Node(m, mi.treeId, mi.dist));
         }
-        return new PartitionResult(visited);
+    }
+
+    private static boolean inFocusBounds(BlockPos p, Map<Integer, BlockPos> centers, int focusCount, int hRadius) {
+        for (int id=0; id<focusCount; id++) if (inBounds(p, centers.get(id), hRadius)) return true;
+        return false;
     }
 
     private static boolean inBounds(BlockPos p, BlockPos center, int hRadius) {
@@ -303,8 +568,170 @@ public final class TreeAnalyzer {
     }
 
     // Data classes
+    private record Trunk(BlockState familyState, String familyKey, boolean jungle, int hRadius, int maxLeafDepth, BlockPos base, Set<BlockPos> cluster, BlockPos center) {}
     private record TrunkSource(int id, Set<BlockPos> cluster, BlockPos center) {}
     private record Node(BlockPos pos, int treeId, int dist) {}
-    private static class VisitInfo { final int treeId; final int dist; final boolean contested; VisitInfo(int t,int d,boolean c){treeId=t;dist=d;contested=c;} }
-    private record PartitionResult(Map<BlockPos, VisitInfo> map) {}
+    private record Search(BlockState family, String familyKey, int hRadius, int maxLeafDepth, int logSpread, Map<Integer, BlockPos> centers, int focusCount) {}
+    private static class VisitInfo { final int treeId; final int dist; final boolean contested; final boolean leaf; VisitInfo(int t,int d,boolean c,boolean l){treeId=t;dist=d;contested=c;leaf=l;} }
+    /** Write filter for one repair round; blocks outside the cleared area that would change are only recorded. */
+    private static final class RepairGuard {
+        final Set<BlockPos> invalid;
+        final Set<BlockPos> created = new HashSet<>();
+        final Set<BlockPos> escaped = new HashSet<>();
+        RepairGuard(Set<BlockPos> invalid) { this.invalid = invalid; }
+
+        boolean mayWrite(BlockPos pos, VisitInfo existing) {
+            if (existing == null) { created.add(pos.immutable()); return true; }
+            if (invalid.contains(pos) || created.contains(pos)) return true;
+            escaped.add(pos.immutable());
+            return false;
+        }
+    }
+    private record PartitionResult(Map<BlockPos, VisitInfo> map, Search search, boolean truncated) {}
+
+    /**
+     * {@link #analyzeGrove} split into units of work so callers can spread a large batch over several ticks.
+     * Every start is resolved first (one unit each), then groves are partitioned one at a time (one unit
+     * per trunk in the grove). Confine to one thread.
+     */
+    static final class GroveBatch {
+        private final Level level;
+        private final List<BlockPos> starts;
+        private final int hardCap;
+        private final List<Trunk> trunks = new ArrayList<>();
+        private final List<List<Integer>> requests = new ArrayList<>(); // request indices per distinct trunk
+        private final Map<BlockPos, Integer> byCenter = new HashMap<>();
+        private int prepared;
+        private List<List<Integer>> groves;
+        private int nextGrove;
+
+        GroveBatch(Level level, List<BlockPos> starts, int hardCap) {
+            this.level = level;
+            this.starts = starts;
+            this.hardCap = hardCap;
+        }
+
+        boolean isDone() {
+            return groves != null && nextGrove >= groves.size();
+        }
+
+        /**
+         * Works until {@code budget} units are spent, at least one unit, and hands every finished start to
+         * {@code done} with its index. Returns the units spent.
+         */
+        int step(int budget, ObjIntConsumer<TreeSelection> done) {
+            int used = 0;
+            while ((used == 0 || used < budget) && !isDone()) {
+                if (prepared < starts.size()) {
+                    int i = prepared++;
+                    used++;
+                    BlockPos start = starts.get(i);
+                    Trunk trunk = prepare(level, start, level.getBlockState(start));
+                    if (trunk == null) { done.accept(TreeSelection.EMPTY, i); continue; }
+                    Integer existing = byCenter.get(trunk.center);
+                    if (existing == null) {
+                        existing = trunks.size();
+                        byCenter.put(trunk.center, existing);
+                        trunks.add(trunk);
+                        requests.add(new ArrayList<>());
+                    }
+                    requests.get(existing).add(i);
+                    continue;
+                }
+                if (groves == null) { groves = groupGroves(); continue; }
+                List<Integer> grove = groves.get(nextGrove++);
+                used += grove.size();
+                List<TreeSelection> selections = partitionGrove(grove);
+                for (int k=0;k<grove.size();k++) {
+                    for (int request : requests.get(grove.get(k))) done.accept(selections.get(k), request);
+                }
+            }
+            return used;
+        }
+
+        // Same family, transitively within reach of each other's partition
+        private List<List<Integer>> groupGroves() {
+            List<List<Integer>> result = new ArrayList<>();
+            boolean[] grouped = new boolean[trunks.size()];
+            for (int i=0;i<trunks.size();i++) {
+                if (grouped[i]) continue;
+                List<Integer> group = new ArrayList<>();
+                ArrayDeque<Integer> q = new ArrayDeque<>();
+                q.add(i); grouped[i] = true;
+                while (!q.isEmpty()) {
+                    int cur = q.poll();
+                    group.add(cur);
+                    Trunk ct = trunks.get(cur);
+                    for (int j=0;j<trunks.size();j++) {
+                        if (grouped[j]) continue;
+                        Trunk other = trunks.get(j);
+                        if (!other.familyKey.equals(ct.familyKey)) continue;
+                        int dx = other.center.getX()-ct.center.getX(); int dz = other.center.getZ()-ct.center.getZ();
+                        int reach = ct.hRadius*2;
+                        if (dx*dx + dz*dz > reach*reach) continue;
+                        grouped[j] = true;
+                        q.add(j);
+                    }
+                }
+                result.add(group);
+            }
+            return result;
+        }
+
+        /** Selections aligned with {@code grove}; all empty if the grove exceeds the source cap. */
+        private List<TreeSelection> partitionGrove(List<Integer> grove) {
+            Trunk first = trunks.get(grove.get(0));
+            List<TrunkSource> sources = new ArrayList<>();
+            int maxLeafDepth = 0;
+            for (int k=0;k<grove.size();k++) {
+                Trunk t = trunks.get(grove.get(k));
+                sources.add(new TrunkSource(k, t.cluster, t.center));
+                maxLeafDepth = Math.max(maxLeafDepth, t.maxLeafDepth);
+            }
+            for (int idx : grove) findAllTrunkSources(level, trunks.get(idx).center, first.familyState, first.hRadius, sources);
+            if (sources.size() > MAX_SOURCES * grove.size()) return Collections.nCopies(grove.size(), TreeSelection.EMPTY); // safety cap
+            PartitionResult partition = multiSourcePartition(level, sources, grove.size(), hardCap, first.familyState, first.hRadius, maxLeafDepth, first.familyKey, first.jungle);
+            List<TreeSelection> selections = new ArrayList<>(grove.size());
+            for (int k=0;k<grove.size();k++) selections.add(collect(level, partition.map, k, trunks.get(grove.get(k)), hardCap));
+            return selections;
+        }
+    }
+
+    /** Partition of one tree kept for {@link #repair}. Mutated in place; confine to one thread. */
+    public static final class TrackedPartition {
+        private final int hardCap;
+        private BlockPos start;
+        private Trunk trunk;
+        private List<TrunkSource> sources;
+        private Search search;
+        private Map<BlockPos, VisitInfo> visited;
+        private boolean truncated;
+        private TreeSelection selection = TreeSelection.EMPTY;
+
+        private TrackedPartition(int hardCap) { this.hardCap = hardCap; }
+
+        public TreeSelection selection() { return selection; }
+
+        private void copyFrom(TrackedPartition other) {
+            start = other.start;
+            trunk = other.trunk;
+            sources = other.sources;
+            search = other.search;
+            visited = other.visited;
+            truncated = other.truncated;
+            selection = other.selection;
+        }
+
+        /** Whether a change at {@code pos} can influence this partition; cheap filter for block update hooks. */
+        public boolean affects(BlockPos pos) {
+            if (visited == null) return false;
+            return inFocusBounds(pos, search.centers, search.focusCount, search.hRadius) || inSourceScan(pos) || inSourceScan(pos.above());
+        }
+
+        // Mirrors the scan box of findAllTrunkSources
+        private boolean inSourceScan(BlockPos p) {
+            int dx = p.getX() - trunk.center.getX(), dy = p.getY() - trunk.center.getY(), dz = p.getZ() - trunk.center.getZ();
+            return Math.abs(dx) <= trunk.hRadius && Math.abs(dz) <= trunk.hRadius && dy >= -4 && dy <= 8;
+        }
+    }
 }
@@ -1,7 +1,6 @@
 package de.primeapi.timber;
 
 import net.fabricmc.fabric.api.event.player.PlayerBlockBreakEvents;
-import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.tags.BlockTags;
 import net.minecraft.world.InteractionHand;
@@ -11,10 +10,8 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.world.entity.EquipmentSlot;
 
-import java.util.List;
-
 public class TreeChopper {
-    private static final int MAX_BLOCKS = 2048; // safety cap
+    static final int MAX_BLOCKS = 2048; // safety cap
 
     public static void init() {
         PlayerBlockBreakEvents.BEFORE.register((level, player, pos, state, blockEntity) -> {
@@ -24,20 +21,16 @@ public class TreeChopper {
             if (!isLogOrStem(state)) return true;
             if (!isAxe(sp.getMainHandItem())) return true;
 
-            List<BlockPos> blocks = TreeAnalyzer.analyze(level, pos, state, MAX_BLOCKS);
-            if (blocks.isEmpty()) return true; // abort - treat as normal break
-            int totalBlocks = blocks.size();
+            TreeSelection selection = TreeAnalyzer.analyze(level, pos, state, MAX_BLOCKS);
+            if (selection.isEmpty()) return true; // abort - treat as normal break
+            int totalBlocks = selection.size();
             if (totalBlocks > MAX_BLOCKS) return true; // safety
 
             ItemStack tool = sp.getMainHandItem();
             if (tool.isEmpty() || !tool.isDamageableItem()) return true;
 
             // Count only logs/stems for durability cost
-            int logCost = 0;
-            for (BlockPos bp : blocks) {
-                BlockState bs = level.getBlockState(bp);
-                if (isLogOrStem(bs)) logCost++;
-            }
+            int logCost = selection.logCount();
 
             int remaining = tool.getMaxDamage() - tool.getDamageValue();
             if (remaining < logCost) {
@@ -45,7 +38,7 @@ public class TreeChopper {
                 return true; // not enough durability for logs alone
             }
 
-            RemovalScheduler.schedule(sp, level, blocks, tool);
+            RemovalScheduler.schedule(sp, level, selection, tool);
             return false; // cancel vanilla
         });
     }
@@ -58,9 +51,8 @@ public class TreeChopper {
         return stack.getItem() instanceof net.minecraft.world.item.AxeItem;
     }
 
-    // Durability application helper invoked by scheduler per block
-    static void applyDurability(ItemStack stack, ServerPlayer player, BlockState state) {
-        if (!isLogOrStem(state)) return; // only logs consume durability now
+    // Durability application helper invoked by scheduler per removed log
+    static void applyDurability(ItemStack stack, ServerPlayer player) {
         if (stack.isEmpty() || !stack.isDamageableItem()) return;
         stack.hurtAndBreak(1, player, EquipmentSlot.MAINHAND);
     }
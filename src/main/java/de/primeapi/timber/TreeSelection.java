@@ -0,0 +1,112 @@
+package de.primeapi.timber;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable result of {@link TreeAnalyzer}. Positions are packed with {@link BlockPos#asLong}; logs occupy
+ * indices {@code [0, logCount)} and leaves the rest, so consumers never need to reread block states to
+ * tell them apart. The bounding box is inclusive and precomputed.
+ */
+public final class TreeSelection {
+    public static final TreeSelection EMPTY = new TreeSelection(new long[0], 0, BlockPos.ZERO, "", 0L);
+
+    private final long[] positions;
+    private final int logCount;
+    private final BlockPos base;
+    private final String family;
+    private final long generation;
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+
+    /** Takes ownership of {@code positions}; the first {@code logCount} entries must be logs. */
+    TreeSelection(long[] positions, int logCount, BlockPos base, String family, long generation) {
+        this.positions = positions;
+        this.logCount = logCount;
+        this.base = base;
+        this.family = family;
+        this.generation = generation;
+        int x0=Integer.MAX_VALUE,y0=Integer.MAX_VALUE,z0=Integer.MAX_VALUE,x1=Integer.MIN_VALUE,y1=Integer.MIN_VALUE,z1=Integer.MIN_VALUE;
+        for (long packed : positions) {
+            int x=BlockPos.getX(packed), y=BlockPos.getY(packed), z=BlockPos.getZ(packed);
+            if (x<x0) x0=x; if (y<y0) y0=y; if (z<z0) z0=z;
+            if (x>x1) x1=x; if (y>y1) y1=y; if (z>z1) z1=z;
+        }
+        if (positions.length == 0) { x0=y0=z0=x1=y1=z1=0; }
+        this.minX=x0; this.minY=y0; this.minZ=z0; this.maxX=x1; this.maxY=y1; this.maxZ=z1;
+    }
+
+    public boolean isEmpty() { return positions.length == 0; }
+    public int size() { return positions.length; }
+    public int logCount() { return logCount; }
+    public int leafCount() { return positions.length - logCount; }
+
+    public long packed(int i) { return positions[i]; }
+    public BlockPos pos(int i) { return BlockPos.of(positions[i]); }
+    public boolean isLog(int i) { return i < logCount; }
+
+    /** Lowest block of the analyzed trunk. */
+    public BlockPos base() { return base; }
+    /** Family key of the trunk, e.g. {@code oak} or {@code crimson}. */
+    public String family() { return family; }
+    /**
+     * Game time of the level when the selection was computed; for a union, that of its oldest part. The stamp
+     * has tick resolution, so changes made later in the same tick are not reflected.
+     */
+    public long generation() { return generation; }
+    /** Ticks since the selection was computed. */
+    public long age(Level level) { return level.getGameTime() - generation; }
+
+    public int minX() { return minX; }
+    public int minY() { return minY; }
+    public int minZ() { return minZ; }
+    public int maxX() { return maxX; }
+    public int maxY() { return maxY; }
+    public int maxZ() { return maxZ; }
+
+    /** Same positions with the same log/leaf split, regardless of order. */
+    boolean sameBlocks(TreeSelection other) {
+        if (size() != other.size() || logCount != other.logCount) return false;
+        LongOpenHashSet logs = new LongOpenHashSet(logCount);
+        for (int i=0;i<logCount;i++) logs.add(positions[i]);
+        LongOpenHashSet leaves = new LongOpenHashSet(leafCount());
+        for (int i=logCount;i<positions.length;i++) leaves.add(positions[i]);
+        for (int i=0;i<other.size();i++) {
+            if (!(other.isLog(i) ? logs : leaves).contains(other.positions[i])) return false;
+        }
+        return true;
+    }
+
+    /** Materializes all positions, logs first. */
+    public List<BlockPos> positions() {
+        List<BlockPos> list = new ArrayList<>(positions.length);
+        for (long packed : positions) list.add(BlockPos.of(packed));
+        return list;
+    }
+
+    /** Combines disjoint selections (e.g. one grove) into one; base and family are taken from the first. */
+    public static TreeSelection union(List<TreeSelection> selections) {
+        int total = 0, logs = 0;
+        long generation = Long.MAX_VALUE;
+        TreeSelection first = null;
+        for (TreeSelection s : selections) {
+            if (s.isEmpty()) continue;
+            if (first == null) first = s;
+            total += s.size();
+            logs += s.logCount;
+            generation = Math.min(generation, s.generation); // as stale as its oldest part
+        }
+        if (first == null) return EMPTY;
+        long[] merged = new long[total];
+        int li = 0, fi = logs;
+        for (TreeSelection s : selections) {
+            for (int i=0;i<s.size();i++) {
+                if (s.isLog(i)) merged[li++] = s.positions[i]; else merged[fi++] = s.positions[i];
+            }
+        }
+        return new TreeSelection(merged, logs, first.base, first.family, generation);
+    }
+}